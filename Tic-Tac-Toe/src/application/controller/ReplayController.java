@@ -0,0 +1,363 @@
+package application.controller;
+
+import application.model.GameArchive;
+import application.model.GameRecord;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.fxml.FXML;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Slider;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Controller for the replay window. Lists the games of an archive and plays them back on the main board.
+ * Only the visible rows of the list are read from disk, and games are read and timed on background
+ * threads, so memory use does not grow with the archive and the FX thread never waits for the disk.
+ */
+public class ReplayController {
+    private static final int SUMMARY_CACHE_SIZE = 512; // Row texts kept for scrolling back
+
+    private TicTacToeController mainController;
+    private Stage dialogStage;
+    @FXML
+    private ListView<Integer> gameList;
+    @FXML
+    private Slider speedSlider;
+    @FXML
+    private CheckBox maxSpeedCheckBox;
+    @FXML
+    private Label statusLabel;
+
+    private GameArchive archive;
+    private final Map<Integer, String> summaries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > SUMMARY_CACHE_SIZE;
+        }
+    };
+    // Reads row texts and stepped games off the FX thread
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replay-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Playback state, shared with the playback thread. A playback runs until the generation moves on;
+    // threads reading the archive are never interrupted, as that would close its channel for every reader.
+    private volatile boolean maxSpeed;
+    private volatile long moveDelay; // Milliseconds between moves
+    private volatile int generation; // Bumped whenever playback restarts or stops, to end it and drop its frames
+    private final Object pauseLock = new Object(); // Wakes a paused playback when the generation moves on
+    private final AtomicReference<Frame> pendingFrame = new AtomicReference<>();
+
+    // Position shown on the board
+    private int currentIndex = -1;
+    private GameRecord currentGame;
+    private int currentMoves;
+
+    /**
+     * A position to show: a game and how many of its moves are played.
+     */
+    private static class Frame {
+        final int generation;
+        final int index;
+        final GameRecord game;
+        final int moves;
+
+        Frame(int generation, int index, GameRecord game, int moves) {
+            this.generation = generation;
+            this.index = index;
+            this.game = game;
+            this.moves = moves;
+        }
+    }
+
+    /**
+     * Game indexes of the archive, created on demand so the list holds no per-game data.
+     */
+    private static class IndexList extends ObservableListBase<Integer> {
+        private final int size;
+
+        IndexList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * List row showing a game's summary, read in the background when first displayed.
+     */
+    private class GameCell extends ListCell<Integer> {
+        @Override
+        protected void updateItem(Integer index, boolean empty) {
+            super.updateItem(index, empty);
+            if (empty || index == null) {
+                setText(null);
+                return;
+            }
+            String summary = summaries.get(index);
+            setText("#" + (index + 1) + "   " + (summary != null ? summary : "..."));
+            if (summary == null) {
+                loadSummary(index, this);
+            }
+        }
+    }
+
+    /**
+     * Initializes the controller class. This method is automatically called
+     * after the fxml file has been loaded. It sets up the game list and the speed controls.
+     */
+    @FXML
+    public void initialize() {
+        gameList.setCellFactory(list -> new GameCell());
+        moveDelay = Math.round(1000 / speedSlider.getValue());
+        speedSlider.valueProperty().addListener((observable, oldValue, newValue) -> moveDelay = Math.round(1000 / newValue.doubleValue()));
+        maxSpeedCheckBox.selectedProperty().addListener((observable, oldValue, newValue) -> maxSpeed = newValue);
+    }
+
+    /**
+     * Opens an archive and lists its games.
+     *
+     * @param file The archive file.
+     */
+    public void openArchive(Path file) {
+        stopPlayback();
+        closeArchive();
+        try {
+            archive = new GameArchive(file);
+            gameList.setItems(new IndexList(archive.size()));
+            statusLabel.setText(archive.size() + " games in " + file.getFileName());
+        } catch (IOException e) {
+            archive = null;
+            gameList.setItems(new IndexList(0));
+            statusLabel.setText("Cannot open " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private void closeArchive() {
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        summaries.clear();
+        currentGame = null;
+        currentIndex = -1;
+    }
+
+    /**
+     * Reads a row's summary in the background and shows it if the row still displays the same game.
+     */
+    private void loadSummary(Integer index, GameCell cell) {
+        GameArchive source = archive;
+        loader.execute(() -> {
+            String summary;
+            String error = null;
+            try {
+                summary = source.read(index).toString();
+            } catch (IOException | RuntimeException e) {
+                summary = "unreadable";
+                error = "Cannot read game " + (index + 1) + ": " + e.getMessage();
+            }
+            String text = summary;
+            String status = error;
+            Platform.runLater(() -> {
+                if (source != archive) return;
+                summaries.put(index, text);
+                if (status != null) statusLabel.setText(status);
+                if (index.equals(cell.getItem())) {
+                    cell.setText("#" + (index + 1) + "   " + text);
+                }
+            });
+        });
+    }
+
+    /**
+     * Handles the "Open" button action to choose an archive file.
+     */
+    @FXML
+    private void handleOpenButtonAction() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Open Game Archive");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Game archives", "*.ttta"));
+        File file = chooser.showOpenDialog(dialogStage);
+        if (file != null) {
+            openArchive(file.toPath());
+        }
+    }
+
+    /**
+     * Handles the "Play" button action, playing from the selected game to the end of the archive.
+     */
+    @FXML
+    private void handlePlayButtonAction() {
+        if (archive == null) return;
+        stopPlayback();
+        GameArchive source = archive;
+        int from = Math.max(0, gameList.getSelectionModel().getSelectedIndex());
+        int frameGeneration = generation;
+        Thread playbackThread = new Thread(() -> play(source, from, frameGeneration), "replay-playback");
+        playbackThread.setDaemon(true);
+        playbackThread.start();
+    }
+
+    /**
+     * Handles the "Step" button action, showing one more move of the selected game.
+     */
+    @FXML
+    private void handleStepButtonAction() {
+        if (archive == null) return;
+        stopPlayback();
+        int index = Math.max(0, gameList.getSelectionModel().getSelectedIndex());
+        if (currentGame != null && index == currentIndex && currentMoves < currentGame.getMoveCount()) {
+            showFrame(new Frame(generation, index, currentGame, currentMoves + 1));
+            return;
+        }
+        // Start the selected game, or the next one once the current game is over
+        int next = currentGame != null && index == currentIndex ? index + 1 : index;
+        if (next >= gameList.getItems().size()) return;
+        GameArchive source = archive;
+        int frameGeneration = generation;
+        loader.execute(() -> {
+            try {
+                publish(new Frame(frameGeneration, next, source.read(next), 0));
+            } catch (IOException | RuntimeException e) {
+                Platform.runLater(() -> statusLabel.setText("Cannot read game " + (next + 1) + ": " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Handles the "Stop" button action.
+     */
+    @FXML
+    private void handleStopButtonAction() {
+        stopPlayback();
+    }
+
+    /**
+     * Plays games one move at a time on the playback thread, or as fast as they can be read at max speed.
+     */
+    private void play(GameArchive source, int from, int frameGeneration) {
+        try {
+            for (int index = from; frameGeneration == generation && index < source.size(); index++) {
+                GameRecord game = source.read(index);
+                for (int moves = 0; moves <= game.getMoveCount() && frameGeneration == generation; moves++) {
+                    publish(new Frame(frameGeneration, index, game, moves));
+                    if (!maxSpeed) pause(frameGeneration);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (frameGeneration == generation) {
+                Platform.runLater(() -> statusLabel.setText("Playback stopped: " + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Waits between two moves, returning early if the playback is stopped or replaced.
+     */
+    private void pause(int frameGeneration) {
+        synchronized (pauseLock) {
+            if (frameGeneration != generation) return;
+            try {
+                pauseLock.wait(moveDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hands a frame to the FX thread. Only the newest frame is kept, so a fast playback skips
+     * positions instead of flooding the FX thread with updates.
+     */
+    private void publish(Frame frame) {
+        Frame previous;
+        do {
+            previous = pendingFrame.get();
+            // A playback that is finishing must not replace a frame from the one that followed it
+            if (previous != null && previous.generation > frame.generation) return;
+        } while (!pendingFrame.compareAndSet(previous, frame));
+        if (previous == null) {
+            Platform.runLater(() -> {
+                Frame latest = pendingFrame.getAndSet(null);
+                if (latest != null) showFrame(latest);
+            });
+        }
+    }
+
+    private void showFrame(Frame frame) {
+        if (frame.generation != generation) return;
+        currentIndex = frame.index;
+        currentGame = frame.game;
+        currentMoves = frame.moves;
+        mainController.showReplayPosition(frame.game, frame.moves);
+        if (gameList.getSelectionModel().getSelectedIndex() != frame.index) {
+            gameList.getSelectionModel().select(frame.index);
+            if (!maxSpeed) gameList.scrollTo(frame.index);
+        }
+        statusLabel.setText("Game " + (frame.index + 1) + " of " + gameList.getItems().size());
+    }
+
+    private void stopPlayback() {
+        synchronized (pauseLock) {
+            generation++;
+            pauseLock.notifyAll();
+        }
+    }
+
+    /**
+     * Stops playback, closes the archive and gives the board back to live play.
+     */
+    public void close() {
+        stopPlayback();
+        loader.shutdown();
+        closeArchive();
+        if (mainController != null) {
+            mainController.endReplay();
+        }
+    }
+
+    /**
+     * Sets the reference to the main controller whose board shows the games.
+     *
+     * @param mainController The main controller to set.
+     */
+    public void setMainController(TicTacToeController mainController) {
+        this.mainController = mainController;
+    }
+
+    /**
+     * Sets the stage for this dialog, used as the owner of the file chooser.
+     *
+     * @param dialogStage The stage of this dialog.
+     */
+    public void setDialogStage(Stage dialogStage) {
+        this.dialogStage = dialogStage;
+    }
+}
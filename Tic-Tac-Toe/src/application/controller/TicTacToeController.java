@@ -1,6 +1,8 @@
 package application.controller;
 
 
+import application.model.GameArchive;
+import application.model.GameRecord;
 import application.model.TicTacToeModel;
 import application.view.TicTacToeView;
 import javafx.application.Platform;
@@ -13,6 +15,11 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -22,6 +29,12 @@ public class TicTacToeController {
     private final TicTacToeModel model = new TicTacToeModel();
     private TicTacToeView mainApp;
     private static final String IMAGES_PATH = "/img/";
+    private final List<Integer> moveHistory = new ArrayList<>(); // Cells played this round, recorded when it ends
+    private final List<Integer> suspendedRound = new ArrayList<>(); // Cells of the round put aside while replaying
+    private boolean replayMode; // Whether the board is showing a recorded game
+    private GameRecord replayGame; // Recorded game on the board, with its number of moves drawn
+    private int replayMoves;
+    private final Map<String, Image> images = new HashMap<>(); // Decoded once and shared by every image view
     @FXML
     private GridPane gameBoard;
     @FXML
@@ -42,6 +55,7 @@ public class TicTacToeController {
         model.setVsComputer(vsComputer);
         model.setCurrentPlayerX(playerXname);
         model.resetScore();
+        suspendedRound.clear();
         resetRound();
     }
 
@@ -49,23 +63,83 @@ public class TicTacToeController {
      * Resets the game board to start a new round.
      */
     private void resetRound() {
+        clearBoardDisplay();
+        if (model.isVsComputer() && model.isComputerX()) {
+            computerMove();
+        }
+
+        updateScoreDisplay();
+        updateTurnDisplay();
+    }
+
+    /**
+     * Clears the board and its images, leaving X to play.
+     */
+    private void clearBoardDisplay() {
         model.clearBoard();
+        moveHistory.clear();
+        replayGame = null;
+        // Winning lines are removed rather than blanked, so replaying many games does not pile them up
+        gameBoard.getChildren().removeIf(node -> node instanceof ImageView);
         for (Node node : gameBoard.getChildren()) {
-            if (node instanceof ImageView) {
-                ((ImageView) node).setImage(null);
-            }
             if (node instanceof Button) {
                 ((Button) node).setGraphic(null);
                 node.setDisable(false);
             }
         }
         model.setPlayerXTurn(true);
-        if (model.isVsComputer() && model.isComputerX()) {
-            computerMove();
+    }
+
+    /**
+     * Shows a recorded game after the given number of moves, drawing them the same way as live moves.
+     * When the board already shows an earlier position of the same game only the new moves are drawn.
+     * Live play is suspended until {@link #endReplay()} is called, and a round in progress is put aside until then.
+     * @param game The recorded game.
+     * @param moves The number of moves to show.
+     */
+    public void showReplayPosition(GameRecord game, int moves) {
+        if (!replayMode || game != replayGame || moves < replayMoves) {
+            if (!replayMode) {
+                suspendedRound.addAll(moveHistory);
+            }
+            replayMode = true;
+            clearBoardDisplay();
+            replayGame = game;
+            replayMoves = 0;
+        }
+        for (int i = replayMoves; i < moves && i < game.getMoveCount(); i++) {
+            int row = game.getMove(i) / 3;
+            int col = game.getMove(i) % 3;
+            Button button = findButton(row, col);
+            if (button != null && model.setMove(row, col)) {
+                drawXO(button);
+            }
         }
+        replayMoves = Math.max(replayMoves, Math.min(moves, game.getMoveCount()));
+        turnLabel.setText("Replay: move " + Math.min(moves, game.getMoveCount()) + " of " + game.getMoveCount());
+    }
 
-        updateScoreDisplay();
-        updateTurnDisplay();
+    /**
+     * Leaves replay mode and puts back the round that was in progress, or starts a fresh one.
+     */
+    public void endReplay() {
+        if (replayMode) {
+            replayMode = false;
+            clearBoardDisplay();
+            for (int cell : suspendedRound) {
+                Button button = findButton(cell / 3, cell % 3);
+                if (button != null && model.setMove(cell / 3, cell % 3)) {
+                    drawXO(button);
+                }
+            }
+            suspendedRound.clear();
+            model.checkGameStatus();
+            if (model.isVsComputer() && model.isComputerX() == model.isPlayerXTurn() && !model.isRoundOver()) {
+                computerMove();
+            }
+            updateScoreDisplay();
+            updateTurnDisplay();
+        }
     }
 
     /**
@@ -74,6 +148,7 @@ public class TicTacToeController {
      */
     @FXML
     private void handleButtonAction(ActionEvent event) {
+        if (replayMode) return;
         Button button = (Button) event.getSource();
         int row = GridPane.getRowIndex(button);
         int col = GridPane.getColumnIndex(button);
@@ -96,6 +171,7 @@ public class TicTacToeController {
         imageView.setFitHeight(button.getHeight());
         imageView.setPreserveRatio(true);
         button.setGraphic(imageView);
+        moveHistory.add(GridPane.getRowIndex(button) * 3 + GridPane.getColumnIndex(button));
         model.switchTurn();
         checkGameStatus();
     }
@@ -106,7 +182,16 @@ public class TicTacToeController {
      * @return Image of 'X' or 'O'.
      */
     private Image getXOimage() {
-        return new Image(Objects.requireNonNull(getClass().getResourceAsStream(model.isPlayerXTurn() ? (IMAGES_PATH + "x.png") : (IMAGES_PATH + "o.png"))));
+        return loadImage(model.isPlayerXTurn() ? "x.png" : "o.png");
+    }
+
+    /**
+     * Loads an image from the images folder, decoding each file only the first time it is needed.
+     * @param imageFile The file name of the image.
+     * @return The image.
+     */
+    private Image loadImage(String imageFile) {
+        return images.computeIfAbsent(imageFile, file -> new Image(Objects.requireNonNull(getClass().getResourceAsStream(IMAGES_PATH + file))));
     }
 
     /**
@@ -119,11 +204,22 @@ public class TicTacToeController {
         }
     }
 
+    /**
+     * Handles the "Replay" button action to show the game archive.
+     */
+    @FXML
+    private void handleReplayButtonAction() {
+        if (mainApp != null) {
+            mainApp.showReplayDialog();
+        }
+    }
+
     /**
      * Initializes the game with default settings.
      */
     public void initializeGameWithDefaults() {
         model.setDefaultSettings();
+        suspendedRound.clear();
         resetRound();
     }
 
@@ -159,31 +255,49 @@ public class TicTacToeController {
      */
     private void computerMove() {
         Platform.runLater(() -> {
+            if (replayMode) return;
             int[] move = model.computeComputerMove();
             int row = move[0];
             int col = move[1];
 
-            Button button = null;
-            for (Node node : gameBoard.getChildren()) {
-                if (GridPane.getRowIndex(node) == row && GridPane.getColumnIndex(node) == col && node instanceof Button) {
-                    button = (Button) node;
-                    break;
-                }
-            }
-
+            Button button = findButton(row, col);
             if (button != null && model.setMove(row, col)) {
                 drawXO(button);
             }
         });
     }
 
+    /**
+     * Finds the board button for a cell.
+     * @param row The row index.
+     * @param col The column index.
+     * @return The button, or null if there is none.
+     */
+    private Button findButton(int row, int col) {
+        for (Node node : gameBoard.getChildren()) {
+            if (GridPane.getRowIndex(node) == row && GridPane.getColumnIndex(node) == col && node instanceof Button) {
+                return (Button) node;
+            }
+        }
+        return null;
+    }
+
     /**
      * Checks the game status to determine if there is a winner or if the board is full.
      */
     private void checkGameStatus() {
         model.checkGameStatus();
+        if (replayMode) {
+            // A recorded game only needs its winning line, without messages, scores or a new round
+            String winnerInfo = model.checkWinner();
+            if (model.isRoundOver() && !winnerInfo.isEmpty()) {
+                displayWinningLine(winnerInfo.charAt(1), Integer.parseInt(winnerInfo.substring(2)));
+            }
+            return;
+        }
         if (model.isRoundOver()) {
             String winnerInfo = model.checkWinner();
+            recordGame(winnerInfo.isEmpty() ? GameRecord.DRAW : winnerInfo.charAt(0) == 'X' ? GameRecord.X_WINS : GameRecord.O_WINS);
             if (!winnerInfo.isEmpty()) {
                 char winner = winnerInfo.charAt(0);
                 displayWinningLine(winnerInfo.charAt(1), Integer.parseInt(winnerInfo.substring(2)));
@@ -199,6 +313,19 @@ public class TicTacToeController {
         updateTurnDisplay();
     }
 
+    /**
+     * Appends the finished round to the game archive.
+     * @param result The result of the round, as a {@link GameRecord} constant.
+     */
+    private void recordGame(int result) {
+        int[] moves = moveHistory.stream().mapToInt(Integer::intValue).toArray();
+        try {
+            GameArchive.append(GameArchive.defaultPath(), new GameRecord(System.currentTimeMillis(), moves, result));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Displays the winning line on the board when a player wins.
      * @param lineType The type of line ('H' for horizontal, 'V' for vertical, 'D' for diagonal).
@@ -217,7 +344,7 @@ public class TicTacToeController {
                 imageFile = (lineIndex == 0) ? "LU-RD.png" : "LD-RU.png";
                 break;
         }
-        Image lineImage = new Image(Objects.requireNonNull(getClass().getResourceAsStream(IMAGES_PATH + imageFile)));
+        Image lineImage = loadImage(imageFile);
         ImageView lineImageView = new ImageView(lineImage);
         lineImageView.setFitWidth(300);
         lineImageView.setFitHeight(300);
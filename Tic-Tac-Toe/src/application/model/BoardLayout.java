@@ -0,0 +1,355 @@
+package application.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Geometry of a square Tic Tac Toe board of any size.
+ * Cells are numbered row by row and hold {@link #EMPTY}, {@link #X} or {@link #O},
+ * which also makes them the digits of the base-3 position code used by the analysis tools.
+ */
+public final class BoardLayout {
+    public static final int EMPTY = 0;
+    public static final int X = 1;
+    public static final int O = 2;
+
+    private final int size; // Number of rows and columns
+    private final int winLength; // Marks in a row needed to win
+    private final int cells; // Total number of cells
+    private final int[][] lines; // Every winning line as a list of cell indexes
+    private final int[][] linesThrough; // Winning lines passing through each cell
+    private final long[] pow3; // Powers of three, one per cell
+    private final long[] zobrist; // Random hash key for each cell and mark
+    private final int[][] symmetries; // Where each cell goes under each rotation and reflection of the board
+
+    /**
+     * Creates a layout where a full row, column or diagonal wins.
+     *
+     * @param size The number of rows and columns.
+     */
+    public BoardLayout(int size) {
+        this(size, size);
+    }
+
+    /**
+     * Creates a layout with the given board size and winning line length.
+     *
+     * @param size      The number of rows and columns.
+     * @param winLength The number of marks in a row needed to win.
+     */
+    public BoardLayout(int size, int winLength) {
+        if (size < 1 || size * size > 39) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        if (winLength < 1 || winLength > size) {
+            throw new IllegalArgumentException("Unsupported winning line length: " + winLength);
+        }
+        this.size = size;
+        this.winLength = winLength;
+        this.cells = size * size;
+
+        pow3 = new long[cells + 1];
+        pow3[0] = 1;
+        for (int i = 1; i <= cells; i++) {
+            pow3[i] = pow3[i - 1] * 3;
+        }
+
+        // Fixed seed, so equal layouts hash equal positions to the same key
+        SplittableRandom random = new SplittableRandom(size * 31L + winLength);
+        zobrist = new long[cells * 3];
+        for (int cell = 0; cell < cells; cell++) {
+            zobrist[cell * 3 + X] = random.nextLong();
+            zobrist[cell * 3 + O] = random.nextLong();
+        }
+
+        // The 8 symmetries of a square: (row, col) -> rotations, then the same after a mirror
+        symmetries = new int[8][cells];
+        for (int t = 0; t < 8; t++) {
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int r = row;
+                    int c = t >= 4 ? size - 1 - col : col;
+                    for (int turn = 0; turn < t % 4; turn++) {
+                        int rotated = c;
+                        c = size - 1 - r;
+                        r = rotated;
+                    }
+                    symmetries[t][index(row, col)] = index(r, c);
+                }
+            }
+        }
+
+        // Collect every run of winLength cells going right, down and along both diagonals
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        List<int[]> found = new ArrayList<>();
+        for (int[] d : directions) {
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int endRow = row + d[0] * (winLength - 1);
+                    int endCol = col + d[1] * (winLength - 1);
+                    if (endRow < 0 || endRow >= size || endCol < 0 || endCol >= size) continue;
+                    int[] line = new int[winLength];
+                    for (int k = 0; k < winLength; k++) {
+                        line[k] = index(row + d[0] * k, col + d[1] * k);
+                    }
+                    found.add(line);
+                }
+            }
+        }
+        lines = found.toArray(new int[0][]);
+
+        linesThrough = new int[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            int count = 0;
+            for (int[] line : lines) {
+                if (contains(line, cell)) count++;
+            }
+            linesThrough[cell] = new int[count];
+            count = 0;
+            for (int l = 0; l < lines.length; l++) {
+                if (contains(lines[l], cell)) linesThrough[cell][count++] = l;
+            }
+        }
+    }
+
+    private static boolean contains(int[] line, int cell) {
+        for (int c : line) {
+            if (c == cell) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Converts a row and column into a cell index.
+     *
+     * @param row The row index.
+     * @param col The column index.
+     * @return The cell index.
+     */
+    public int index(int row, int col) {
+        return row * size + col;
+    }
+
+    /**
+     * Converts a board of "X", "O" and "" strings, as kept by {@link TicTacToeModel}, into cell values.
+     *
+     * @param board The board to convert.
+     * @return A new array with one entry per cell.
+     */
+    public int[] fromBoard(String[][] board) {
+        int[] result = new int[cells];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                String mark = board[row][col];
+                result[index(row, col)] = "X".equals(mark) ? X : "O".equals(mark) ? O : EMPTY;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encodes a position as a base-3 number, cell 0 being the least significant digit.
+     *
+     * @param board The cell values.
+     * @return The position code.
+     */
+    public long encode(int[] board) {
+        long code = 0;
+        for (int i = cells - 1; i >= 0; i--) {
+            code = code * 3 + board[i];
+        }
+        return code;
+    }
+
+    /**
+     * Decodes a base-3 position code into cell values.
+     *
+     * @param code  The position code.
+     * @param board The array receiving one value per cell.
+     */
+    public void decode(long code, int[] board) {
+        for (int i = 0; i < cells; i++) {
+            board[i] = (int) (code % 3);
+            code /= 3;
+        }
+    }
+
+    /**
+     * Computes the Zobrist hash of a position, the XOR of the keys of all marks on the board.
+     *
+     * @param board The cell values.
+     * @return The 64-bit position hash.
+     */
+    public long zobrist(int[] board) {
+        long hash = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            hash ^= zobrist[cell * 3 + board[cell]];
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the Zobrist key of one mark, to update a hash incrementally when it is placed or removed.
+     *
+     * @param cell The cell index.
+     * @param mark {@link #X} or {@link #O}.
+     * @return The key to XOR into the hash.
+     */
+    public long zobristKey(int cell, int mark) {
+        return zobrist[cell * 3 + mark];
+    }
+
+    /**
+     * Finds the symmetry that gives a position its smallest code, so that rotated and mirrored
+     * copies of a position share one canonical form.
+     *
+     * @param board The cell values.
+     * @return The index of the symmetry, for {@link #transform(int, int)} and {@link #canonicalCode(int[], int)}.
+     */
+    public int canonicalSymmetry(int[] board) {
+        int best = 0;
+        long bestCode = Long.MAX_VALUE;
+        for (int t = 0; t < symmetries.length; t++) {
+            long code = canonicalCode(board, t);
+            if (code < bestCode) {
+                bestCode = code;
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Encodes a position after applying a symmetry.
+     *
+     * @param board    The cell values.
+     * @param symmetry The index of the symmetry.
+     * @return The base-3 code of the transformed position.
+     */
+    public long canonicalCode(int[] board, int symmetry) {
+        long code = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            code += board[cell] * pow3[symmetries[symmetry][cell]];
+        }
+        return code;
+    }
+
+    /**
+     * Maps a cell through a symmetry.
+     *
+     * @param symmetry The index of the symmetry.
+     * @param cell     The cell index.
+     * @return The cell it is moved to.
+     */
+    public int transform(int symmetry, int cell) {
+        return symmetries[symmetry][cell];
+    }
+
+    /**
+     * Maps a cell back through a symmetry.
+     *
+     * @param symmetry The index of the symmetry.
+     * @param cell     The transformed cell index.
+     * @return The cell that the symmetry moves there.
+     */
+    public int inverseTransform(int symmetry, int cell) {
+        for (int original = 0; original < cells; original++) {
+            if (symmetries[symmetry][original] == cell) return original;
+        }
+        throw new IllegalArgumentException("No such cell: " + cell);
+    }
+
+    /**
+     * Finds the player owning a complete winning line.
+     *
+     * @param board The cell values.
+     * @return {@link #X} or {@link #O} for the winner, or {@link #EMPTY} if there is none.
+     */
+    public int winner(int[] board) {
+        for (int[] line : lines) {
+            int mark = board[line[0]];
+            if (mark != EMPTY && isComplete(board, line, mark)) {
+                return mark;
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Checks if the mark in the given cell completes a winning line, which is all a
+     * move can change.
+     *
+     * @param board The cell values.
+     * @param cell  The cell that was just played.
+     * @return true if the cell is part of a complete line of its owner, false otherwise.
+     */
+    public boolean isWinningCell(int[] board, int cell) {
+        int mark = board[cell];
+        if (mark == EMPTY) return false;
+        for (int l : linesThrough[cell]) {
+            if (isComplete(board, lines[l], mark)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isComplete(int[] board, int[] line, int mark) {
+        for (int c : line) {
+            if (board[c] != mark) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determines whose turn it is, X always moving first.
+     *
+     * @param board The cell values.
+     * @return {@link #X} if both players have the same number of marks, {@link #O} otherwise.
+     */
+    public int sideToMove(int[] board) {
+        int balance = 0;
+        for (int mark : board) {
+            if (mark == X) balance++;
+            else if (mark == O) balance--;
+        }
+        return balance == 0 ? X : O;
+    }
+
+    /**
+     * Returns the other player's mark.
+     *
+     * @param mark {@link #X} or {@link #O}.
+     * @return The opponent's mark.
+     */
+    public static int opponent(int mark) {
+        return mark == X ? O : X;
+    }
+
+    // Getters
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    public int[][] getLines() {
+        return lines;
+    }
+
+    public long pow3(int cell) {
+        return pow3[cell];
+    }
+
+    public long getPositionCount() {
+        return pow3[cells];
+    }
+}
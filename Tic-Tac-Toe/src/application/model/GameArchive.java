@@ -0,0 +1,135 @@
+package application.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File of recorded games with one fixed-size record per game, so any game can be read
+ * directly by its index without loading the rest of the archive.
+ * Reads use positional channel reads and are safe from several threads at once.
+ */
+public class GameArchive implements AutoCloseable {
+    private static final int MAGIC = 0x54545441; // "TTTA"
+    private static final int HEADER_SIZE = 16; // magic, cells per board, record size, reserved
+    private static final int CELLS = 9;
+    // timestamp, move count, result and one byte per possible move, rounded up to 8 bytes
+    private static final int RECORD_SIZE = (8 + 2 + CELLS + 7) / 8 * 8;
+
+    private final FileChannel channel;
+
+    /**
+     * Opens an archive for reading.
+     *
+     * @param file The archive file.
+     * @throws IOException if the file cannot be opened or is not an archive.
+     */
+    public GameArchive(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != CELLS || header.getInt() != RECORD_SIZE) {
+            channel.close();
+            throw new IOException("Not a game archive: " + file);
+        }
+    }
+
+    /**
+     * Gets the file games are recorded to, named by the "tictactoe.archive" system property
+     * or games.ttta in the .tictactoe folder of the user's home.
+     *
+     * @return The archive path.
+     */
+    public static Path defaultPath() {
+        String name = System.getProperty("tictactoe.archive");
+        return name != null ? Paths.get(name) : Paths.get(System.getProperty("user.home"), ".tictactoe", "games.ttta");
+    }
+
+    /**
+     * Counts the games in the archive, including any appended since it was opened.
+     *
+     * @return The number of complete records.
+     * @throws IOException if the file size cannot be read.
+     */
+    public int size() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    /**
+     * Reads one game.
+     *
+     * @param index The index of the game, from 0.
+     * @return The game.
+     * @throws IOException if the record cannot be read or does not hold a valid game.
+     */
+    public GameRecord read(int index) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long position = HEADER_SIZE + (long) index * RECORD_SIZE;
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                throw new IOException("No game " + index + " in the archive");
+            }
+        }
+        record.flip();
+        long timestamp = record.getLong();
+        int moveCount = record.get();
+        int result = record.get();
+        if (moveCount < 0 || moveCount > CELLS) {
+            throw new IOException("Game " + index + " has " + moveCount + " moves");
+        }
+        if (result != GameRecord.DRAW && result != GameRecord.X_WINS && result != GameRecord.O_WINS) {
+            throw new IOException("Game " + index + " has an unknown result " + result);
+        }
+        int[] moves = new int[moveCount];
+        int played = 0; // Cells already taken, one bit each
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = record.get();
+            if (moves[i] < 0 || moves[i] >= CELLS || (played & 1 << moves[i]) != 0) {
+                throw new IOException("Game " + index + " has an invalid move " + moves[i] + " at move " + (i + 1));
+            }
+            played |= 1 << moves[i];
+        }
+        return new GameRecord(timestamp, moves, result);
+    }
+
+    /**
+     * Appends a game to an archive, creating the file if needed.
+     *
+     * @param file The archive file.
+     * @param game The game to record.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void append(Path file, GameRecord game) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (out.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(CELLS).putInt(RECORD_SIZE).position(HEADER_SIZE).flip();
+                out.write(header);
+            }
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            record.putLong(game.getTimestamp());
+            record.put((byte) game.getMoveCount());
+            record.put((byte) game.getResult());
+            for (int i = 0; i < game.getMoveCount(); i++) {
+                record.put((byte) game.getMove(i));
+            }
+            record.position(RECORD_SIZE).flip();
+            while (record.hasRemaining()) {
+                out.write(record);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,313 @@
+package application.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Counts every game that can be played from a position, using the move and win rules of
+ * {@link TicTacToeModel}. From the empty board this must find the known 255,168 games
+ * (131,184 won by X, 77,904 by O and 46,080 draws), which makes it both a correctness check
+ * for the rules and a benchmark of the move and win-check path. The same count is repeated on
+ * {@link BoardLayout} cells to check that the faster representation agrees with the model.
+ */
+public class GamePerft {
+    private static final int SPLIT_DEPTH = 2; // Plies searched as separate fork-join tasks
+    private static final int WARMUP_RUNS = 5; // Untimed runs letting the JIT compile the hot path
+    private static final int TIMED_RUNS = 7; // Timed runs, reported by their median and best
+
+    /**
+     * Totals of an enumeration.
+     */
+    public static class Counts {
+        long nodes; // Positions visited, including the starting one
+        long games; // Finished games
+        long xWins;
+        long oWins;
+        long draws;
+        long unfinished; // Games cut off by the depth limit
+
+        void add(Counts other) {
+            nodes += other.nodes;
+            games += other.games;
+            xWins += other.xWins;
+            oWins += other.oWins;
+            draws += other.draws;
+            unfinished += other.unfinished;
+        }
+
+        boolean matches(Counts other) {
+            return nodes == other.nodes && games == other.games && xWins == other.xWins
+                    && oWins == other.oWins && draws == other.draws && unfinished == other.unfinished;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getXWins() {
+            return xWins;
+        }
+
+        public long getOWins() {
+            return oWins;
+        }
+
+        public long getDraws() {
+            return draws;
+        }
+
+        public long getUnfinished() {
+            return unfinished;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d games (%,d X wins, %,d O wins, %,d draws, %,d unfinished), %,d nodes",
+                    games, xWins, oWins, draws, unfinished, nodes);
+        }
+    }
+
+    /**
+     * Enumerates all games on the model's board, playing and undoing moves on the model itself.
+     *
+     * @param model The model holding the starting position and turn. Restored on return.
+     * @param depth The maximum number of moves to play.
+     * @return The totals.
+     */
+    public static Counts perft(TicTacToeModel model, int depth) {
+        Counts counts = new Counts();
+        perft(model, depth, counts);
+        return counts;
+    }
+
+    private static void perft(TicTacToeModel model, int depth, Counts counts) {
+        counts.nodes++;
+        if (countResult(model, depth, counts)) return;
+
+        String[][] board = model.getBoard();
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                if (!model.setMove(row, col)) continue;
+                model.switchTurn();
+                perft(model, depth - 1, counts);
+                model.switchTurn();
+                board[row][col] = "";
+            }
+        }
+    }
+
+    /**
+     * Counts the position as a finished or cut-off game if it is one.
+     *
+     * @return true if the position has no moves to explore.
+     */
+    private static boolean countResult(TicTacToeModel model, int depth, Counts counts) {
+        String winner = model.checkWinner();
+        if (!winner.isEmpty()) {
+            counts.games++;
+            if (winner.charAt(0) == 'X') counts.xWins++;
+            else counts.oWins++;
+            return true;
+        }
+        if (model.isBoardFull()) {
+            counts.games++;
+            counts.draws++;
+            return true;
+        }
+        if (depth == 0) {
+            counts.unfinished++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Enumerates the same games in parallel, each task working on its own copy of the model.
+     */
+    private static class PerftTask extends RecursiveTask<Counts> {
+        private static final long serialVersionUID = 1L;
+
+        private final TicTacToeModel model;
+        private final int depth;
+        private final int splitDepth;
+
+        PerftTask(TicTacToeModel model, int depth, int splitDepth) {
+            this.model = model;
+            this.depth = depth;
+            this.splitDepth = splitDepth;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (splitDepth == 0) return perft(model, depth);
+
+            Counts counts = new Counts();
+            counts.nodes++;
+            if (countResult(model, depth, counts)) return counts;
+
+            List<PerftTask> tasks = new ArrayList<>();
+            for (int row = 0; row < 3; row++) {
+                for (int col = 0; col < 3; col++) {
+                    if (!model.getBoard()[row][col].isEmpty()) continue;
+                    TicTacToeModel child = copy(model);
+                    child.setMove(row, col);
+                    child.switchTurn();
+                    tasks.add(new PerftTask(child, depth - 1, splitDepth - 1));
+                }
+            }
+            for (PerftTask task : invokeAll(tasks)) {
+                counts.add(task.join());
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Enumerates all games on the model's board using a fork-join pool.
+     *
+     * @param model The model holding the starting position and turn. Left unchanged.
+     * @param depth The maximum number of moves to play.
+     * @param pool  The pool to run on.
+     * @return The totals.
+     */
+    public static Counts parallelPerft(TicTacToeModel model, int depth, ForkJoinPool pool) {
+        return pool.invoke(new PerftTask(copy(model), depth, SPLIT_DEPTH));
+    }
+
+    private static TicTacToeModel copy(TicTacToeModel model) {
+        TicTacToeModel copy = new TicTacToeModel();
+        for (int row = 0; row < 3; row++) {
+            System.arraycopy(model.getBoard()[row], 0, copy.getBoard()[row], 0, 3);
+        }
+        copy.setPlayerXTurn(model.isPlayerXTurn());
+        return copy;
+    }
+
+    /**
+     * Enumerates all games on {@link BoardLayout} cells, checking only the lines through each new mark.
+     *
+     * @param layout The board geometry.
+     * @param board  The starting cell values. Restored on return.
+     * @param depth  The maximum number of moves to play.
+     * @return The totals.
+     */
+    public static Counts perft(BoardLayout layout, int[] board, int depth) {
+        Counts counts = new Counts();
+        counts.nodes++;
+        int winner = layout.winner(board);
+        int empty = 0;
+        for (int mark : board) {
+            if (mark == BoardLayout.EMPTY) empty++;
+        }
+        if (winner != BoardLayout.EMPTY) {
+            counts.games++;
+            if (winner == BoardLayout.X) counts.xWins++;
+            else counts.oWins++;
+        } else if (empty == 0) {
+            counts.games++;
+            counts.draws++;
+        } else if (depth == 0) {
+            counts.unfinished++;
+        } else {
+            perft(layout, board, layout.sideToMove(board), empty, depth, counts);
+        }
+        return counts;
+    }
+
+    private static void perft(BoardLayout layout, int[] board, int mover, int empty, int depth, Counts counts) {
+        for (int cell = 0; cell < board.length; cell++) {
+            if (board[cell] != BoardLayout.EMPTY) continue;
+            board[cell] = mover;
+            counts.nodes++;
+            if (layout.isWinningCell(board, cell)) {
+                counts.games++;
+                if (mover == BoardLayout.X) counts.xWins++;
+                else counts.oWins++;
+            } else if (empty == 1) {
+                counts.games++;
+                counts.draws++;
+            } else if (depth == 1) {
+                counts.unfinished++;
+            } else {
+                perft(layout, board, BoardLayout.opponent(mover), empty - 1, depth - 1, counts);
+            }
+            board[cell] = BoardLayout.EMPTY;
+        }
+    }
+
+    /**
+     * Runs the enumeration from the command line and reports throughput.
+     *
+     * @param args Maximum depth (default 9) and starting position as 9 characters read row by row,
+     *             "X", "O" or "." for an empty cell (default the empty board).
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        String position = args.length > 1 ? args[1] : ".........";
+        if (position.length() != 9) {
+            throw new IllegalArgumentException("Position must have 9 cells: " + position);
+        }
+
+        TicTacToeModel model = new TicTacToeModel();
+        int balance = 0;
+        for (int i = 0; i < 9; i++) {
+            char mark = Character.toUpperCase(position.charAt(i));
+            if (mark == 'X' || mark == 'O') {
+                model.getBoard()[i / 3][i % 3] = String.valueOf(mark);
+                balance += mark == 'X' ? 1 : -1;
+            }
+        }
+        model.setPlayerXTurn(balance == 0);
+
+        Counts single = benchmark("Model, 1 thread", () -> perft(model, depth));
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Counts parallel = benchmark("Model, fork-join (" + pool.getParallelism() + " threads)", () -> parallelPerft(model, depth, pool));
+
+        BoardLayout layout = new BoardLayout(3);
+        int[] board = layout.fromBoard(model.getBoard());
+        Counts cells = benchmark("BoardLayout, 1 thread", () -> perft(layout, board, depth));
+
+        if (!single.matches(parallel) || !single.matches(cells)) {
+            System.out.println("MISMATCH between enumerations");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs an enumeration several times after a warm-up and reports its median and best speed.
+     *
+     * @param label The name of the enumeration.
+     * @param run   The enumeration.
+     * @return The totals of the last run.
+     */
+    private static Counts benchmark(String label, Supplier<Counts> run) {
+        Counts counts = null;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            counts = run.get();
+        }
+        long[] times = new long[TIMED_RUNS];
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            Counts result = run.get();
+            times[i] = System.nanoTime() - start;
+            if (!result.matches(counts)) {
+                throw new IllegalStateException(label + " gave different totals on run " + (i + 1));
+            }
+        }
+        Arrays.sort(times);
+        double median = times[TIMED_RUNS / 2] / 1e9;
+        double best = times[0] / 1e9;
+        System.out.printf("%s: %s%n    median %.4f s (%,.0f nodes/sec), best %.4f s (%,.0f nodes/sec) over %d runs%n",
+                label, counts, median, counts.nodes / median, best, counts.nodes / best, TIMED_RUNS);
+        return counts;
+    }
+}
@@ -0,0 +1,63 @@
+package application.model;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A finished game as kept in a {@link GameArchive}: when it was played, its moves and its result.
+ */
+public class GameRecord {
+    // Results
+    public static final int DRAW = 0;
+    public static final int X_WINS = 1;
+    public static final int O_WINS = 2;
+
+    private final long timestamp; // Milliseconds since the epoch
+    private final int[] moves; // Cell indexes, row by row, in the order played starting with X
+    private final int result;
+
+    /**
+     * Creates a record.
+     *
+     * @param timestamp When the game ended, in milliseconds since the epoch.
+     * @param moves     The cells played, X first.
+     * @param result    {@link #DRAW}, {@link #X_WINS} or {@link #O_WINS}.
+     */
+    public GameRecord(long timestamp, int[] moves, int result) {
+        this.timestamp = timestamp;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    public int[] getMoves() {
+        return Arrays.copyOf(moves, moves.length);
+    }
+
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * Describes the game in one line, for lists of games.
+     *
+     * @return The date, result and number of moves.
+     */
+    @Override
+    public String toString() {
+        String outcome = result == X_WINS ? "X wins" : result == O_WINS ? "O wins" : "Draw";
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(timestamp)) + "   " + outcome + " in " + moves.length + " moves";
+    }
+}
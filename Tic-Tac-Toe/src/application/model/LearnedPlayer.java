@@ -0,0 +1,194 @@
+package application.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Computer player driven by a {@link ValueFunction} learned from self-play.
+ * Its strength is the probability of playing the move with the best learned value instead of a random one.
+ */
+public class LearnedPlayer {
+    private static final int MAGIC = 0x54545457; // "TTTW"
+    private static final int TABULAR = 0;
+    private static final int LINEAR = 1;
+
+    // Players loaded at startup, one per board size, shared by every game
+    private static final Map<Integer, Optional<LearnedPlayer>> DEFAULTS = new ConcurrentHashMap<>();
+
+    private final BoardLayout layout;
+    private final ValueFunction values;
+    private final double strength;
+
+    /**
+     * Creates a player.
+     *
+     * @param layout   The board the player plays on.
+     * @param values   The learned position values.
+     * @param strength The probability of playing the best move, between 0 and 1.
+     */
+    public LearnedPlayer(BoardLayout layout, ValueFunction values, double strength) {
+        this.layout = layout;
+        this.values = values;
+        this.strength = strength;
+    }
+
+    /**
+     * Gives the value of the position reached by playing a cell, using the real result when the move ends the game.
+     *
+     * @param board The cell values, with the move already played.
+     * @param cell  The cell that was played.
+     * @param marks The number of marks on the board after the move.
+     * @return The value from X's point of view.
+     */
+    float valueAfterMove(int[] board, int cell, int marks) {
+        if (layout.isWinningCell(board, cell)) {
+            return board[cell] == BoardLayout.X ? 1f : -1f;
+        }
+        return marks == board.length ? 0f : values.value(board);
+    }
+
+    /**
+     * Chooses a move for the player whose turn it is.
+     *
+     * @param board The cell values, with at least one empty cell. Left unchanged.
+     * @return The index of the chosen cell.
+     */
+    public int chooseMove(int[] board) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextDouble() < strength ? bestMove(board) : randomMove(board, random);
+    }
+
+    /**
+     * Finds the move with the best learned value for the player whose turn it is.
+     *
+     * @param board The cell values, with at least one empty cell. Left unchanged.
+     * @return The index of the chosen cell.
+     */
+    int bestMove(int[] board) {
+        int mover = layout.sideToMove(board);
+        int marks = 1;
+        for (int mark : board) {
+            if (mark != BoardLayout.EMPTY) marks++;
+        }
+        int bestCell = -1;
+        float bestValue = Float.NEGATIVE_INFINITY;
+        for (int cell = 0; cell < board.length; cell++) {
+            if (board[cell] != BoardLayout.EMPTY) continue;
+            board[cell] = mover;
+            float value = valueAfterMove(board, cell, marks);
+            board[cell] = BoardLayout.EMPTY;
+            if (mover == BoardLayout.O) value = -value;
+            if (value > bestValue) {
+                bestValue = value;
+                bestCell = cell;
+            }
+        }
+        return bestCell;
+    }
+
+    static int randomMove(int[] board, ThreadLocalRandom random) {
+        int empty = 0;
+        for (int mark : board) {
+            if (mark == BoardLayout.EMPTY) empty++;
+        }
+        int pick = random.nextInt(empty);
+        for (int cell = 0; ; cell++) {
+            if (board[cell] == BoardLayout.EMPTY && pick-- == 0) return cell;
+        }
+    }
+
+    /**
+     * Computes a move for a board kept as strings, like {@link TicTacToeModel}'s.
+     *
+     * @param board The game board.
+     * @return An array with the row and column of the chosen move.
+     */
+    public int[] computeMove(String[][] board) {
+        int cell = chooseMove(layout.fromBoard(board));
+        return new int[]{cell / layout.getSize(), cell % layout.getSize()};
+    }
+
+    /**
+     * Saves the learned values in a compact binary file.
+     *
+     * @param file The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(values instanceof TabularValues ? TABULAR : LINEAR);
+            out.writeInt(layout.getSize());
+            out.writeInt(layout.getWinLength());
+            values.write(out);
+        }
+    }
+
+    /**
+     * Loads a player saved by {@link #save(Path)}.
+     *
+     * @param file     The file to read.
+     * @param strength The probability of playing the best move, between 0 and 1.
+     * @return The loaded player.
+     * @throws IOException if the file cannot be read or is not a weights file.
+     */
+    public static LearnedPlayer load(Path file, double strength) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a weights file: " + file);
+        }
+        int kind = in.getInt();
+        BoardLayout layout = new BoardLayout(in.getInt(), in.getInt());
+        ValueFunction values;
+        if (kind == TABULAR) {
+            values = TabularValues.read(layout, in);
+        } else if (kind == LINEAR) {
+            values = LinearPatternValues.read(layout, in);
+        } else {
+            throw new IOException("Unknown weights kind " + kind + " in " + file);
+        }
+        return new LearnedPlayer(layout, values, strength);
+    }
+
+    /**
+     * Gets the player for a board size, loaded once from the file named by the "tictactoe.weights"
+     * system property or "weights-NxN.bin", with the strength from "tictactoe.strength".
+     *
+     * @param size The number of rows and columns.
+     * @return The player, or null if there is no usable weights file.
+     */
+    public static LearnedPlayer loadDefault(int size) {
+        return DEFAULTS.computeIfAbsent(size, s -> {
+            Path file = Paths.get(System.getProperty("tictactoe.weights", "weights-" + s + "x" + s + ".bin"));
+            if (!Files.isRegularFile(file)) return Optional.empty();
+            try {
+                LearnedPlayer player = load(file, Double.parseDouble(System.getProperty("tictactoe.strength", "1.0")));
+                return player.layout.getSize() == s ? Optional.of(player) : Optional.empty();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    public ValueFunction getValues() {
+        return values;
+    }
+
+    public double getStrength() {
+        return strength;
+    }
+}
@@ -0,0 +1,98 @@
+package application.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Linear evaluator for boards too large for a table.
+ * Every winning line still open to only one player is a pattern, weighted by its owner, how
+ * many marks it already holds and whose turn it is; the value is the squashed sum of the weights
+ * of all patterns. The turn matters most near the end: a line one mark short wins only for its
+ * owner to move.
+ */
+public class LinearPatternValues implements ValueFunction {
+    private final BoardLayout layout;
+    private final float[] weights; // X patterns with 1..winLength marks, then the same for O; with X to move, then with O
+
+    /**
+     * Creates an evaluator with all weights at zero.
+     *
+     * @param layout The board the evaluator is for.
+     */
+    public LinearPatternValues(BoardLayout layout) {
+        this.layout = layout;
+        this.weights = new float[4 * (layout.getWinLength() + 1)];
+    }
+
+    /**
+     * Counts the patterns on the board.
+     *
+     * @param board The cell values.
+     * @return The number of lines of each pattern, indexed like the weights.
+     */
+    private int[] features(int[] board) {
+        int[] counts = new int[weights.length];
+        int offset = layout.sideToMove(board) == BoardLayout.X ? 0 : weights.length / 2;
+        for (int[] line : layout.getLines()) {
+            int xMarks = 0, oMarks = 0;
+            for (int c : line) {
+                if (board[c] == BoardLayout.X) xMarks++;
+                else if (board[c] == BoardLayout.O) oMarks++;
+            }
+            if (oMarks == 0 && xMarks > 0) counts[offset + xMarks]++;
+            else if (xMarks == 0 && oMarks > 0) counts[offset + layout.getWinLength() + 1 + oMarks]++;
+        }
+        return counts;
+    }
+
+    private float evaluate(int[] counts) {
+        float sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            sum += weights[i] * counts[i];
+        }
+        return (float) Math.tanh(sum);
+    }
+
+    @Override
+    public float value(int[] board) {
+        return evaluate(features(board));
+    }
+
+    @Override
+    public void update(int[] board, float target, float learningRate) {
+        int[] counts = features(board);
+        float current = evaluate(counts);
+        // Gradient of tanh: each weight moves in proportion to how often its pattern occurs
+        float step = learningRate * (target - current) * (1 - current * current);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) weights[i] += step * counts[i];
+        }
+    }
+
+    @Override
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(weights.length);
+        for (float weight : weights) {
+            out.writeFloat(weight);
+        }
+    }
+
+    /**
+     * Reads weights written by {@link #write(DataOutputStream)}.
+     *
+     * @param layout The board the evaluator is for.
+     * @param in     The buffer positioned at the weights.
+     * @return The loaded evaluator.
+     */
+    static LinearPatternValues read(BoardLayout layout, ByteBuffer in) {
+        LinearPatternValues evaluator = new LinearPatternValues(layout);
+        if (in.getInt() != evaluator.weights.length) {
+            throw new IllegalArgumentException("Weight count does not match the board");
+        }
+        for (int i = 0; i < evaluator.weights.length; i++) {
+            evaluator.weights[i] = in.getFloat();
+        }
+        return evaluator;
+    }
+}
@@ -0,0 +1,156 @@
+package application.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Alpha-beta search backed by a {@link PositionCache}, so positions already analysed by any
+ * game in the JVM are not searched again. Scores are from the point of view of the player to
+ * move; a win scores {@link #WIN} less the number of moves needed, so faster wins are preferred.
+ * Positions at the depth limit are scored with a {@link ValueFunction} when one is given, else as draws.
+ * Since those scores depend on the evaluator, each evaluator hashes positions with its own salt and
+ * searches using different evaluators never reuse each other's entries.
+ */
+public class NegamaxSearch {
+    public static final int WIN = 1000;
+    private static final int WIN_BOUND = WIN - 256; // Scores beyond this are wins or losses at a known distance
+    private static final int VALUE_SCALE = 100; // Scale of ValueFunction estimates, kept well below WIN_BOUND
+
+    private final BoardLayout layout;
+    private final PositionCache cache;
+    private final ValueFunction values;
+    private final long salt; // Mixed into every key, one per evaluator
+
+    // Random salt for each evaluator in use, forgotten once the evaluator is
+    private static final Map<ValueFunction, Long> SALTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Creates a search.
+     *
+     * @param layout The board to search.
+     * @param cache  The cache to share results through.
+     * @param values The evaluator for positions at the depth limit, may be null.
+     */
+    public NegamaxSearch(BoardLayout layout, PositionCache cache, ValueFunction values) {
+        this.layout = layout;
+        this.cache = cache;
+        this.values = values;
+        this.salt = values == null ? 0 : SALTS.computeIfAbsent(values, v -> ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Finds the best move for the player whose turn it is.
+     *
+     * @param board The cell values, with at least one empty cell and no winner. Left unchanged.
+     * @param depth The number of moves to look ahead.
+     * @return The index of the chosen cell.
+     */
+    public int bestMove(int[] board, int depth) {
+        int[] work = board.clone();
+        int empty = emptyCells(work);
+        cache.newSearch();
+        // The root reports its move directly, as other games may replace its cache entry at any time
+        int[] move = new int[1];
+        negamax(work, layout.zobrist(work) ^ salt, layout.sideToMove(work), Math.min(depth, empty), empty, -WIN - 1, WIN + 1, move);
+        return move[0];
+    }
+
+    /**
+     * Scores a position for the player whose turn it is.
+     *
+     * @param board The cell values, with at least one empty cell and no winner. Left unchanged.
+     * @param depth The number of moves to look ahead.
+     * @return {@link #WIN} less the moves needed for a win, its negative for a loss, else a draw or estimate near 0.
+     */
+    public int score(int[] board, int depth) {
+        int[] work = board.clone();
+        int empty = emptyCells(work);
+        cache.newSearch();
+        return negamax(work, layout.zobrist(work) ^ salt, layout.sideToMove(work), Math.min(depth, empty), empty, -WIN - 1, WIN + 1, null);
+    }
+
+    private static int emptyCells(int[] board) {
+        int empty = 0;
+        for (int mark : board) {
+            if (mark == BoardLayout.EMPTY) empty++;
+        }
+        return empty;
+    }
+
+    /**
+     * Computes a move for a board kept as strings, like {@link TicTacToeModel}'s.
+     *
+     * @param board The game board.
+     * @param depth The number of moves to look ahead.
+     * @return An array with the row and column of the chosen move.
+     */
+    public int[] computeMove(String[][] board, int depth) {
+        int cell = bestMove(layout.fromBoard(board), depth);
+        return new int[]{cell / layout.getSize(), cell % layout.getSize()};
+    }
+
+    /**
+     * Scores a position for the player to move.
+     *
+     * @param rootMove Receives the best move when searching the root, which must not stop at a cached score; null elsewhere.
+     */
+    private int negamax(int[] board, long key, int mover, int depth, int empty, int alpha, int beta, int[] rootMove) {
+        if (depth == 0) {
+            if (values == null) return 0;
+            float value = values.value(board);
+            return Math.round((mover == BoardLayout.X ? value : -value) * VALUE_SCALE);
+        }
+
+        int bestMove = -1;
+        long entry = cache.probe(key);
+        if (entry != 0) {
+            bestMove = PositionCache.bestMove(entry);
+            if (rootMove == null && PositionCache.depth(entry) >= depth) {
+                int score = PositionCache.score(entry);
+                int bound = PositionCache.bound(entry);
+                if (bound == PositionCache.EXACT
+                        || bound == PositionCache.LOWER && score >= beta
+                        || bound == PositionCache.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int best = -WIN - 1;
+        // Try the cached best move first, then the others in order
+        for (int i = -1; i < board.length; i++) {
+            int cell = i < 0 ? bestMove : i;
+            if (cell < 0 || board[cell] != BoardLayout.EMPTY || (i >= 0 && cell == bestMove)) continue;
+
+            board[cell] = mover;
+            int score;
+            if (layout.isWinningCell(board, cell)) {
+                score = WIN - 1;
+            } else if (empty == 1) {
+                score = 0;
+            } else {
+                score = -negamax(board, key ^ layout.zobristKey(cell, mover), BoardLayout.opponent(mover),
+                        Math.min(depth - 1, empty - 1), empty - 1, -beta, -alpha, null);
+                // A result one move further away
+                if (score > WIN_BOUND) score--;
+                else if (score < -WIN_BOUND) score++;
+            }
+            board[cell] = BoardLayout.EMPTY;
+
+            if (score > best) {
+                best = score;
+                bestMove = cell;
+            }
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+        }
+
+        int bound = best <= originalAlpha ? PositionCache.UPPER : best >= beta ? PositionCache.LOWER : PositionCache.EXACT;
+        cache.store(key, best, depth, bound, bestMove);
+        if (rootMove != null) rootMove[0] = bestMove;
+        return best;
+    }
+}
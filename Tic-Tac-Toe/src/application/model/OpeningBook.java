@@ -0,0 +1,382 @@
+package application.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opening moves with their statistics, aggregated from recorded or self-played games.
+ * Positions are stored in canonical form, so rotated and mirrored openings share their statistics.
+ * Only moves that negamax finds as good as any other are kept, so the book never plays worse than a search would.
+ * The book file holds fixed-size entries sorted by position code and move; it is memory-mapped
+ * and searched by binary search, so looking up a move costs a few page reads and no parsing.
+ */
+public class OpeningBook implements AutoCloseable {
+    private static final int MAGIC = 0x54545442; // "TTTB"
+    private static final int HEADER_SIZE = 16; // magic, board size, entry count, reserved
+    private static final int ENTRY_SIZE = 24; // position code, move, games, wins, draws
+    private static final int DEFAULT_MAX_PLY = 6; // Moves of each game added to the book
+    private static final int MIN_SIZE = 3; // Board sizes a book may be for
+    private static final int MAX_SIZE = 6;
+
+    // Books loaded at startup, one per board size, shared by every game
+    private static final Map<Integer, Optional<OpeningBook>> DEFAULTS = new ConcurrentHashMap<>();
+
+    private final BoardLayout layout;
+    private final FileChannel channel;
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+    private int minGames = 3; // Games a move needs before the book trusts it
+
+    /**
+     * Opens a book file. The header is checked against the file, so a damaged book is rejected here
+     * rather than failing during a game.
+     *
+     * @param file The book file.
+     * @throws IOException if the file cannot be opened or is not a valid book.
+     */
+    public OpeningBook(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            int size = entries.getInt(4);
+            entryCount = entries.getInt(8);
+            if (entries.getInt(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            if (size < MIN_SIZE || size > MAX_SIZE) {
+                throw new IOException("Unsupported board size " + size + " in opening book: " + file);
+            }
+            if (entryCount < 0 || HEADER_SIZE + (long) entryCount * ENTRY_SIZE > fileSize) {
+                throw new IOException("Opening book is truncated: " + file);
+            }
+            layout = new BoardLayout(size);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the book for a board size, opened once from the file named by the "tictactoe.book"
+     * system property or "book-NxN.bin".
+     *
+     * @param size The number of rows and columns.
+     * @return The book, or null if there is no usable book file.
+     */
+    public static OpeningBook loadDefault(int size) {
+        return DEFAULTS.computeIfAbsent(size, s -> {
+            Path file = Paths.get(System.getProperty("tictactoe.book", "book-" + s + "x" + s + ".bin"));
+            if (!Files.isRegularFile(file)) return Optional.empty();
+            try {
+                OpeningBook book = new OpeningBook(file);
+                if (book.layout.getSize() != s) {
+                    book.close();
+                    return Optional.empty();
+                }
+                return Optional.of(book);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Finds the book move with the best results, counting a draw as half a win. All book moves of a
+     * position are equally good, so the results only pick the line that has worked best in practice.
+     *
+     * @param board The cell values. Left unchanged.
+     * @return The index of the chosen cell, or -1 if the book has no trusted move for the position.
+     */
+    public int lookup(int[] board) {
+        int symmetry = layout.canonicalSymmetry(board);
+        long code = layout.canonicalCode(board, symmetry);
+
+        // Binary search for the first entry of the position
+        int low = 0, high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (codeAt(mid) < code) low = mid + 1;
+            else high = mid;
+        }
+
+        int bestMove = -1;
+        double bestScore = -1;
+        int bestGames = 0;
+        for (int i = low; i < entryCount && codeAt(i) == code; i++) {
+            int offset = HEADER_SIZE + i * ENTRY_SIZE;
+            int games = entries.getInt(offset + 12);
+            int move = entries.getInt(offset + 8);
+            if (games < Math.max(1, minGames) || move < 0 || move >= layout.getCells()) continue;
+            double score = (entries.getInt(offset + 16) + entries.getInt(offset + 20) * 0.5) / games;
+            if (score > bestScore || score == bestScore && games > bestGames) {
+                bestScore = score;
+                bestGames = games;
+                bestMove = move;
+            }
+        }
+        return bestMove < 0 ? -1 : layout.inverseTransform(symmetry, bestMove);
+    }
+
+    private long codeAt(int index) {
+        return entries.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    /**
+     * Computes a book move for a board kept as strings, like {@link TicTacToeModel}'s.
+     *
+     * @param board The game board.
+     * @return An array with the row and column of the book move, or null if there is none.
+     */
+    public int[] computeMove(String[][] board) {
+        int cell = lookup(layout.fromBoard(board));
+        return cell < 0 ? null : new int[]{cell / layout.getSize(), cell % layout.getSize()};
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setMinGames(int minGames) {
+        this.minGames = minGames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Aggregates games into book entries.
+     */
+    public static class Builder {
+        private final BoardLayout layout;
+        private final int maxPly;
+        private final Map<Long, int[]> stats = new HashMap<>(); // Games, wins and draws per canonical position and move
+        private ValueFunction values; // Evaluator for the search past the book, may be null
+        private int searchDepth = Integer.MAX_VALUE; // Moves searched past the book, to the end of the game by default
+        private NegamaxSearch search;
+        private final Map<Long, Integer> positionValues = new HashMap<>(); // Negamax value of each canonical position, while saving
+
+        /**
+         * Creates a builder.
+         *
+         * @param layout The board the games are played on.
+         * @param maxPly The number of moves of each game to add.
+         */
+        public Builder(BoardLayout layout, int maxPly) {
+            this.layout = layout;
+            this.maxPly = maxPly;
+        }
+
+        /**
+         * Adds the opening moves of a game, each scored for the player who made it.
+         *
+         * @param moves  The cells played, X first.
+         * @param result {@link GameRecord#DRAW}, {@link GameRecord#X_WINS} or {@link GameRecord#O_WINS}.
+         */
+        public void addGame(int[] moves, int result) {
+            int[] board = new int[layout.getCells()];
+            int mover = BoardLayout.X;
+            for (int ply = 0; ply < moves.length && ply < maxPly; ply++) {
+                int symmetry = layout.canonicalSymmetry(board);
+                long code = layout.canonicalCode(board, symmetry);
+                // Positions with symmetries of their own have several equivalent moves; keep the smallest
+                int move = layout.transform(symmetry, moves[ply]);
+                for (int t = symmetry + 1; t < 8; t++) {
+                    if (layout.canonicalCode(board, t) == code) move = Math.min(move, layout.transform(t, moves[ply]));
+                }
+                int[] entry = stats.computeIfAbsent(code * layout.getCells() + move, key -> new int[3]);
+                entry[0]++;
+                if (result == GameRecord.DRAW) entry[2]++;
+                else if ((result == GameRecord.X_WINS) == (mover == BoardLayout.X)) entry[1]++;
+
+                board[moves[ply]] = mover;
+                mover = BoardLayout.opponent(mover);
+            }
+        }
+
+        /**
+         * Adds every game of an archive.
+         *
+         * @param archive The archive to read.
+         * @throws IOException if a game cannot be read.
+         */
+        public void addArchive(GameArchive archive) throws IOException {
+            int size = archive.size();
+            for (int i = 0; i < size; i++) {
+                GameRecord game = archive.read(i);
+                addGame(game.getMoves(), game.getResult());
+            }
+        }
+
+        /**
+         * Sets how positions past the end of the book are valued when it is written.
+         *
+         * @param values The evaluator for positions at the search depth limit, may be null.
+         * @param depth  The number of moves to search past the book.
+         */
+        public void setSearch(ValueFunction values, int depth) {
+            this.values = values;
+            this.searchDepth = depth;
+        }
+
+        /**
+         * Writes the book, sorted by position code and move. Win rates from games that were not played
+         * perfectly can favour a move the opponent could refute, so each move is first valued by negamax
+         * over the book tree, trying every reply and searching the positions the book does not cover.
+         * Only the moves as good as the best legal move of their position are written; the win rates
+         * then only choose between equally good moves.
+         *
+         * @param file The book file to write.
+         * @return The number of entries written.
+         * @throws IOException if the file cannot be written.
+         */
+        public int save(Path file) throws IOException {
+            search = new NegamaxSearch(layout, PositionCache.shared(), values);
+            positionValues.clear();
+            long[] keys = stats.keySet().stream()
+                    .filter(key -> moveValue(key / layout.getCells(), (int) (key % layout.getCells())) == positionValue(key / layout.getCells()))
+                    .mapToLong(Long::longValue).sorted().toArray();
+            ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + keys.length * ENTRY_SIZE);
+            out.putInt(MAGIC).putInt(layout.getSize()).putInt(keys.length).putInt(0);
+            for (long key : keys) {
+                int[] entry = stats.get(key);
+                out.putLong(key / layout.getCells()).putInt((int) (key % layout.getCells()));
+                out.putInt(entry[0]).putInt(entry[1]).putInt(entry[2]);
+            }
+            out.flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            }
+            return keys.length;
+        }
+
+        /**
+         * Values a canonical position for the player to move, as its best legal move inside the book
+         * and by search outside it.
+         */
+        private int positionValue(long code) {
+            Integer cached = positionValues.get(code);
+            if (cached != null) return cached;
+            int[] board = new int[layout.getCells()];
+            layout.decode(code, board);
+            int value;
+            if (!hasMoves(code)) {
+                value = search.score(board, searchDepth);
+            } else {
+                value = -NegamaxSearch.WIN - 1;
+                for (int move = 0; move < board.length; move++) {
+                    if (board[move] == BoardLayout.EMPTY) value = Math.max(value, moveValue(code, move));
+                }
+            }
+            positionValues.put(code, value);
+            return value;
+        }
+
+        /**
+         * Values a move for the player making it, on the scale of {@link NegamaxSearch#score}. Wins found
+         * inside the book are not discounted by their distance, as any of them will do.
+         */
+        private int moveValue(long code, int move) {
+            int[] board = new int[layout.getCells()];
+            layout.decode(code, board);
+            board[move] = layout.sideToMove(board);
+            if (layout.isWinningCell(board, move)) return NegamaxSearch.WIN - 1;
+            if (Arrays.stream(board).noneMatch(mark -> mark == BoardLayout.EMPTY)) return 0;
+            return -positionValue(layout.canonicalCode(board, layout.canonicalSymmetry(board)));
+        }
+
+        private boolean hasMoves(long code) {
+            for (int move = 0; move < layout.getCells(); move++) {
+                if (stats.containsKey(code * layout.getCells() + move)) return true;
+            }
+            return false;
+        }
+
+        public int size() {
+            return stats.size();
+        }
+    }
+
+    /**
+     * Plays a game between two copies of a player, for building a book without recorded games.
+     *
+     * @param layout The board to play on.
+     * @param player The player, or null to play random moves.
+     * @param moves  Receives the cells played; must have one entry per cell.
+     * @param result Receives the result of the game as a {@link GameRecord} constant.
+     * @return The number of moves played.
+     */
+    private static int selfPlay(BoardLayout layout, LearnedPlayer player, int[] moves, int[] result) {
+        int[] board = new int[layout.getCells()];
+        int mover = BoardLayout.X;
+        for (int ply = 0; ply < board.length; ply++) {
+            int cell = player != null ? player.chooseMove(board)
+                    : LearnedPlayer.randomMove(board, ThreadLocalRandom.current());
+            board[cell] = mover;
+            moves[ply] = cell;
+            if (layout.isWinningCell(board, cell)) {
+                result[0] = mover == BoardLayout.X ? GameRecord.X_WINS : GameRecord.O_WINS;
+                return ply + 1;
+            }
+            mover = BoardLayout.opponent(mover);
+        }
+        result[0] = GameRecord.DRAW;
+        return board.length;
+    }
+
+    /**
+     * Builds a 3x3 book from the command line.
+     *
+     * @param args Source, either an archive file or "selfplay:N" for N games played by the learned
+     *             player (random moves without weights), then the book file (default "book-3x3.bin")
+     *             and the number of moves per game to add (default 6).
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        String source = args.length > 0 ? args[0] : GameArchive.defaultPath().toString();
+        Path file = Paths.get(args.length > 1 ? args[1] : "book-3x3.bin");
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+
+        BoardLayout layout = new BoardLayout(3);
+        Builder builder = new Builder(layout, maxPly);
+        long start = System.nanoTime();
+        if (source.startsWith("selfplay:")) {
+            long games = Long.parseLong(source.substring("selfplay:".length()));
+            // Play below full strength so the book sees more than one line of play
+            LearnedPlayer learned = LearnedPlayer.loadDefault(3);
+            LearnedPlayer player = learned != null ? new LearnedPlayer(layout, learned.getValues(), 0.8) : null;
+            int[] moves = new int[layout.getCells()];
+            int[] result = new int[1];
+            for (long game = 0; game < games; game++) {
+                int length = selfPlay(layout, player, moves, result);
+                builder.addGame(Arrays.copyOf(moves, length), result[0]);
+            }
+        } else {
+            try (GameArchive archive = new GameArchive(Paths.get(source))) {
+                builder.addArchive(archive);
+            }
+        }
+        int written = builder.save(file);
+        System.out.printf("Wrote %,d of %,d entries to %s in %.1f s%n", written, builder.size(), file, (System.nanoTime() - start) / 1e9);
+    }
+}
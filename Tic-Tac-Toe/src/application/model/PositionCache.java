@@ -0,0 +1,198 @@
+package application.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of search results shared by every game in the JVM, keyed by Zobrist hash.
+ * Each slot holds two longs, the entry and the entry XOR the key: a reader recomputes the key
+ * and ignores the slot if the two were written by different threads, so neither reads nor
+ * writes take a lock. Slots are grouped in buckets; a new result replaces an entry for the same
+ * position, else an empty slot, else the entry from the oldest epoch, else the shallowest one.
+ * An epoch is {@link #SEARCHES_PER_EPOCH} searches by any game, so many games searching at once share
+ * an epoch and keep each other's deeper results. Epochs are stored in 20 bits and wrap after about
+ * a million, when old entries briefly look fresh again.
+ */
+public class PositionCache {
+    // Bound types of a cached score
+    public static final int EXACT = 1;
+    public static final int LOWER = 2; // The real score is at least the cached one
+    public static final int UPPER = 3; // The real score is at most the cached one
+
+    private static final int BUCKET_SIZE = 4; // Slots examined for each key
+    private static final int SLOT_BYTES = 16;
+    private static final int SEARCHES_PER_EPOCH = 256;
+    private static final int AGE_MASK = (1 << 20) - 1;
+
+    private static PositionCache shared;
+
+    private final AtomicLongArray slots; // Pairs of (key XOR entry, entry)
+    private final int bucketMask;
+    private final AtomicLong searches = new AtomicLong(); // Searches started, the epoch being this over SEARCHES_PER_EPOCH
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param megabytes The memory the cache may use, rounded down to a power of two number of buckets.
+     */
+    public PositionCache(int megabytes) {
+        long buckets = Math.max(1, (long) megabytes * 1024 * 1024 / (SLOT_BYTES * BUCKET_SIZE));
+        buckets = Math.min(Long.highestOneBit(buckets), 1 << 26);
+        this.bucketMask = (int) buckets - 1;
+        this.slots = new AtomicLongArray((int) buckets * BUCKET_SIZE * 2);
+    }
+
+    /**
+     * Gets the cache shared by all games, sized by the "tictactoe.cache.mb" system property (16 MB by default).
+     *
+     * @return The shared cache.
+     */
+    public static synchronized PositionCache shared() {
+        if (shared == null) {
+            shared = new PositionCache(Integer.getInteger("tictactoe.cache.mb", 16));
+        }
+        return shared;
+    }
+
+    /**
+     * Counts the start of a new search, so entries from earlier epochs are replaced first.
+     */
+    public void newSearch() {
+        searches.incrementAndGet();
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key The Zobrist hash of the position.
+     * @return The packed entry, to be read with the static accessors, or 0 if the position is not cached.
+     */
+    public long probe(long key) {
+        int base = bucket(key);
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = base + i * 2;
+            long entry = slots.get(slot + 1);
+            if (entry != 0 && (slots.get(slot) ^ entry) == key) {
+                hits.increment();
+                return entry;
+            }
+        }
+        misses.increment();
+        return 0;
+    }
+
+    /**
+     * Stores a search result.
+     *
+     * @param key      The Zobrist hash of the position.
+     * @param score    The score found, between -32768 and 32767.
+     * @param depth    The depth searched, between 0 and 255.
+     * @param bound    {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     * @param bestMove The best cell found, or -1 if none.
+     */
+    public void store(long key, int score, int depth, int bound, int bestMove) {
+        int currentAge = (int) (searches.get() / SEARCHES_PER_EPOCH) & AGE_MASK;
+        long entry = pack(score, depth, bound, bestMove, currentAge);
+        int base = bucket(key);
+        int victim = -1;
+        int victimRank = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = base + i * 2;
+            long existing = slots.get(slot + 1);
+            if (existing == 0 || (slots.get(slot) ^ existing) == key) {
+                if (existing != 0 && depth(existing) > depth && age(existing) == currentAge) return; // Keep the deeper result
+                victim = slot;
+                victimRank = Integer.MIN_VALUE;
+                break;
+            }
+            // Entries from older epochs go first, then the shallowest
+            int staleness = (currentAge - age(existing)) & AGE_MASK;
+            int rank = depth(existing) - staleness * 256;
+            if (rank < victimRank) {
+                victimRank = rank;
+                victim = slot;
+            }
+        }
+        if (victimRank != Integer.MIN_VALUE) evictions.increment();
+        slots.set(victim, key ^ entry);
+        slots.set(victim + 1, entry);
+        stores.increment();
+    }
+
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE * 2;
+    }
+
+    // Entry layout: score (16 bits), depth (8), bound (2), best move + 1 (8), epoch (20)
+
+    private static long pack(int score, int depth, int bound, int bestMove, int age) {
+        return (score & 0xFFFFL) | (long) depth << 16 | (long) bound << 24 | (long) (bestMove + 1) << 26 | (long) age << 34;
+    }
+
+    public static int score(long entry) {
+        return (short) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 16) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 24) & 3;
+    }
+
+    public static int bestMove(long entry) {
+        return ((int) (entry >>> 26) & 0xFF) - 1;
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> 34) & AGE_MASK;
+    }
+
+    /**
+     * Removes every entry and resets the counters.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0);
+        }
+        hits.reset();
+        misses.reset();
+        stores.reset();
+        evictions.reset();
+    }
+
+    // Counters
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getCapacity() {
+        return slots.length() / 2;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PositionCache[capacity=%d, hits=%d, misses=%d, stores=%d, evictions=%d]",
+                getCapacity(), getHits(), getMisses(), getStores(), getEvictions());
+    }
+}
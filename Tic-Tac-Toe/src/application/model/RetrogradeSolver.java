@@ -0,0 +1,256 @@
+package application.model;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Solves every position of a small board (3x3 or 4x4) by retrograde analysis.
+ * Results are kept in a memory-mapped file with 2 bits per position, indexed by the
+ * base-3 code from {@link BoardLayout}, so the 43M positions of a 4x4 board take about 11 MB
+ * and no Java objects. Positions are solved one level (number of marks) at a time, from the
+ * full board back to the empty one; each level runs in parallel and is flushed to disk before
+ * the next one starts, so an interrupted run resumes from the last completed level.
+ */
+public class RetrogradeSolver implements AutoCloseable {
+    // Values stored for each position, seen from the player to move
+    public static final int ILLEGAL = 0; // Unreachable or not yet solved
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+    public static final int DRAW = 3;
+
+    private static final int MAGIC = 0x54545452; // "TTTR"
+    private static final int HEADER_SIZE = 16; // magic, board size, next level to solve, reserved
+    private static final int NEXT_LEVEL_OFFSET = 8;
+    private static final int CHUNK = 1 << 14; // Positions per parallel task, a multiple of 4 so tasks never share a byte
+
+    private final BoardLayout layout;
+    private final int positions;
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+
+    // Mark counts for the low and high halves of a position code, to find a position's level without decoding it
+    private final int lowCells;
+    private final int lowModulus;
+    private final byte[] lowMarks;
+    private final byte[] highMarks;
+
+    /**
+     * Opens the table file for the given board size, creating it if needed.
+     *
+     * @param size      The number of rows and columns, 3 or 4.
+     * @param tableFile The file holding the solved table.
+     * @throws IOException if the file cannot be opened or belongs to another board size.
+     */
+    public RetrogradeSolver(int size, Path tableFile) throws IOException {
+        if (size < 3 || size > 4) {
+            throw new IllegalArgumentException("Only 3x3 and 4x4 boards can be solved: " + size);
+        }
+        this.layout = new BoardLayout(size);
+        this.positions = (int) layout.getPositionCount();
+
+        channel = FileChannel.open(tableFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean isNew = channel.size() == 0;
+        table = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (positions + 3) / 4);
+        table.order(ByteOrder.BIG_ENDIAN);
+        if (isNew) {
+            table.putInt(0, MAGIC);
+            table.putInt(4, size);
+            table.putInt(NEXT_LEVEL_OFFSET, layout.getCells());
+            table.force();
+        } else if (table.getInt(0) != MAGIC || table.getInt(4) != size) {
+            channel.close();
+            throw new IOException("Not a " + size + "x" + size + " solver table: " + tableFile);
+        }
+
+        lowCells = layout.getCells() / 2;
+        lowModulus = (int) layout.pow3(lowCells);
+        lowMarks = markCounts(lowCells);
+        highMarks = markCounts(layout.getCells() - lowCells);
+    }
+
+    private static byte[] markCounts(int digits) {
+        int count = 1;
+        for (int i = 0; i < digits; i++) count *= 3;
+        byte[] marks = new byte[count];
+        for (int code = 1; code < count; code++) {
+            marks[code] = (byte) (marks[code / 3] + (code % 3 != 0 ? 1 : 0));
+        }
+        return marks;
+    }
+
+    /**
+     * Solves all remaining levels, continuing from the last checkpoint.
+     *
+     * @param progress Receives the number of each level once it is on disk, may be null.
+     */
+    public void solve(IntConsumer progress) {
+        for (int level = nextLevel(); level >= 0; level--) {
+            final int marks = level;
+            IntStream.range(0, (positions + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> solveChunk(chunk, marks));
+            table.force();
+            table.putInt(NEXT_LEVEL_OFFSET, level - 1);
+            table.force();
+            if (progress != null) progress.accept(level);
+        }
+    }
+
+    /**
+     * Solves the positions of one chunk that have the given number of marks.
+     * All their children have one more mark and were solved by the previous level.
+     */
+    private void solveChunk(int chunk, int marks) {
+        int cells = layout.getCells();
+        int[] board = new int[cells];
+        int end = Math.min(positions, (chunk + 1) * CHUNK);
+        for (int code = chunk * CHUNK; code < end; code++) {
+            if (lowMarks[code % lowModulus] + highMarks[code / lowModulus] != marks) continue;
+            layout.decode(code, board);
+            setValue(code, evaluate(code, board));
+        }
+    }
+
+    private int evaluate(int code, int[] board) {
+        int xCount = 0, oCount = 0;
+        for (int mark : board) {
+            if (mark == BoardLayout.X) xCount++;
+            else if (mark == BoardLayout.O) oCount++;
+        }
+        if (xCount != oCount && xCount != oCount + 1) return ILLEGAL;
+
+        boolean xWins = false, oWins = false;
+        for (int[] line : layout.getLines()) {
+            int mark = board[line[0]];
+            if (mark == BoardLayout.EMPTY) continue;
+            boolean complete = true;
+            for (int c : line) {
+                if (board[c] != mark) {
+                    complete = false;
+                    break;
+                }
+            }
+            if (complete) {
+                if (mark == BoardLayout.X) xWins = true;
+                else oWins = true;
+            }
+        }
+        // A finished game is lost for the player to move, provided the winner made the last move
+        if (xWins) return !oWins && xCount == oCount + 1 ? LOSS : ILLEGAL;
+        if (oWins) return xCount == oCount ? LOSS : ILLEGAL;
+        if (xCount + oCount == board.length) return DRAW;
+
+        int mover = xCount == oCount ? BoardLayout.X : BoardLayout.O;
+        int best = LOSS;
+        for (int cell = 0; cell < board.length; cell++) {
+            if (board[cell] != BoardLayout.EMPTY) continue;
+            int child = getValue(code + mover * (int) layout.pow3(cell));
+            if (child == LOSS) return WIN;
+            if (child == DRAW) best = DRAW;
+        }
+        return best;
+    }
+
+    /**
+     * Gets the solved value of a position.
+     *
+     * @param code The base-3 position code.
+     * @return {@link #WIN}, {@link #LOSS} or {@link #DRAW} for the player to move, or {@link #ILLEGAL}.
+     */
+    public int getValue(int code) {
+        int shift = (code & 3) * 2;
+        return (table.get(HEADER_SIZE + (code >>> 2)) >>> shift) & 3;
+    }
+
+    private void setValue(int code, int value) {
+        int index = HEADER_SIZE + (code >>> 2);
+        int shift = (code & 3) * 2;
+        table.put(index, (byte) ((table.get(index) & ~(3 << shift)) | (value << shift)));
+    }
+
+    /**
+     * Picks a perfect move: a winning one if possible, otherwise one that keeps the draw.
+     *
+     * @param board The cell values, with at least one empty cell and no winner.
+     * @return The index of the chosen cell.
+     */
+    public int bestMove(int[] board) {
+        if (!isSolved()) {
+            throw new IllegalStateException("The table is not solved yet");
+        }
+        int code = (int) layout.encode(board);
+        int mover = layout.sideToMove(board);
+        int bestCell = -1;
+        int bestRank = -1;
+        for (int cell = 0; cell < board.length; cell++) {
+            if (board[cell] != BoardLayout.EMPTY) continue;
+            int child = getValue(code + mover * (int) layout.pow3(cell));
+            // The child is valued for the opponent, so their loss ranks highest
+            int rank = child == LOSS ? 2 : child == DRAW ? 1 : 0;
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestCell = cell;
+            }
+        }
+        return bestCell;
+    }
+
+    /**
+     * Computes a perfect move for a board kept as strings, like {@link TicTacToeModel}'s.
+     *
+     * @param board The game board.
+     * @return An array with the row and column of the chosen move.
+     */
+    public int[] computeMove(String[][] board) {
+        int cell = bestMove(layout.fromBoard(board));
+        return new int[]{cell / layout.getSize(), cell % layout.getSize()};
+    }
+
+    /**
+     * Gets the next level to solve, or -1 once the whole table is solved.
+     */
+    public int nextLevel() {
+        return table.getInt(NEXT_LEVEL_OFFSET);
+    }
+
+    public boolean isSolved() {
+        return nextLevel() < 0;
+    }
+
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Flushes the table and closes the file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        table.force();
+        channel.close();
+    }
+
+    /**
+     * Solves a board from the command line.
+     *
+     * @param args Board size (default 4) and table file (default "solved-NxN.bin").
+     * @throws IOException if the table file cannot be used.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        Path file = Paths.get(args.length > 1 ? args[1] : "solved-" + size + "x" + size + ".bin");
+        try (RetrogradeSolver solver = new RetrogradeSolver(size, file)) {
+            long start = System.nanoTime();
+            solver.solve(level -> System.out.printf("Level %d solved (%.1f s)%n", level, (System.nanoTime() - start) / 1e9));
+            String[] names = {"illegal", "win", "loss", "draw"};
+            System.out.println("Empty board: " + names[solver.getValue(0)] + " for X");
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package application.model;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trains a {@link LearnedPlayer} by temporal-difference learning from games it plays against itself.
+ * Every core plays its own games and updates the shared {@link ValueFunction} directly, without locks.
+ * Progress is reported as games per second and the mean TD error, which falls as the values converge.
+ */
+public class SelfPlayTrainer {
+    private final BoardLayout layout;
+    private final ValueFunction values;
+    private final LearnedPlayer greedy; // Picks the best move according to the values being trained
+    private float learningRate;
+    private double exploration = 0.1; // Probability of a random move during training
+
+    // Statistics for the current report interval
+    private final LongAdder gamesPlayed = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final DoubleAdder error = new DoubleAdder();
+
+    /**
+     * Creates a trainer, with a table for boards up to 4x4 and line patterns for larger ones.
+     *
+     * @param layout The board to train on.
+     */
+    public SelfPlayTrainer(BoardLayout layout) {
+        this.layout = layout;
+        this.values = layout.getCells() <= 16 ? new TabularValues(layout) : new LinearPatternValues(layout);
+        // Pattern weights are shared by many lines of every position, so they need much smaller steps than table entries
+        this.learningRate = values instanceof TabularValues ? 0.1f : 0.01f;
+        this.greedy = new LearnedPlayer(layout, values, 1.0);
+    }
+
+    /**
+     * Plays training games on all cores, printing progress every second.
+     *
+     * @param games The number of games to play.
+     * @throws InterruptedException if interrupted while waiting for the workers.
+     */
+    public void train(long games) throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicLong remaining = new AtomicLong(games);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                int[] board = new int[layout.getCells()];
+                while (remaining.getAndDecrement() > 0) {
+                    playTrainingGame(board);
+                    gamesPlayed.increment();
+                }
+            });
+        }
+        workers.shutdown();
+
+        long total = 0;
+        long last = System.nanoTime();
+        boolean done = false;
+        while (!done) {
+            done = workers.awaitTermination(1, TimeUnit.SECONDS);
+            long now = System.nanoTime();
+            long played = gamesPlayed.sumThenReset();
+            long count = updates.sumThenReset();
+            total += played;
+            System.out.printf("%,d games  %,.0f games/sec  mean TD error %.4f%n",
+                    total, played / ((now - last) / 1e9), count == 0 ? 0 : error.sumThenReset() / count);
+            last = now;
+        }
+    }
+
+    /**
+     * Plays one game, moving the value of each position towards the value of the position that followed it.
+     */
+    private void playTrainingGame(int[] board) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Arrays.fill(board, BoardLayout.EMPTY);
+        int mover = BoardLayout.X;
+        for (int marks = 1; marks <= board.length; marks++) {
+            int cell = random.nextDouble() < exploration ? LearnedPlayer.randomMove(board, random) : greedy.bestMove(board);
+            board[cell] = mover;
+            float target = greedy.valueAfterMove(board, cell, marks);
+            boolean over = layout.isWinningCell(board, cell) || marks == board.length;
+
+            board[cell] = BoardLayout.EMPTY;
+            error.add(Math.abs(target - values.value(board)));
+            updates.increment();
+            values.update(board, target, learningRate);
+            board[cell] = mover;
+
+            if (over) return;
+            mover = BoardLayout.opponent(mover);
+        }
+    }
+
+    /**
+     * Plays the trained player against a random one, once as X and once as O per game.
+     *
+     * @param games The number of games for each side.
+     * @return Wins, draws and losses of the trained player.
+     */
+    public int[] evaluateAgainstRandom(int games) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] results = new int[3];
+        int[] board = new int[layout.getCells()];
+        for (int game = 0; game < 2 * games; game++) {
+            int trained = game % 2 == 0 ? BoardLayout.X : BoardLayout.O;
+            Arrays.fill(board, BoardLayout.EMPTY);
+            int mover = BoardLayout.X;
+            int winner = BoardLayout.EMPTY;
+            for (int marks = 1; marks <= board.length; marks++) {
+                int cell = mover == trained ? greedy.bestMove(board) : LearnedPlayer.randomMove(board, random);
+                board[cell] = mover;
+                if (layout.isWinningCell(board, cell)) {
+                    winner = mover;
+                    break;
+                }
+                mover = BoardLayout.opponent(mover);
+            }
+            results[winner == trained ? 0 : winner == BoardLayout.EMPTY ? 1 : 2]++;
+        }
+        return results;
+    }
+
+    /**
+     * Gets the trained player.
+     *
+     * @param strength The probability of playing the best move, between 0 and 1.
+     * @return A player using the trained values.
+     */
+    public LearnedPlayer getPlayer(double strength) {
+        return new LearnedPlayer(layout, values, strength);
+    }
+
+    public void setLearningRate(float learningRate) {
+        this.learningRate = learningRate;
+    }
+
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    /**
+     * Trains a player from the command line and saves its weights.
+     *
+     * @param args Board size (default 3), number of games (default 1000000), weights file
+     *             (default "weights-NxN.bin") and winning line length (default the board size).
+     * @throws Exception if training is interrupted or the weights cannot be saved.
+     */
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        String file = args.length > 2 ? args[2] : "weights-" + size + "x" + size + ".bin";
+        int winLength = args.length > 3 ? Integer.parseInt(args[3]) : size;
+
+        SelfPlayTrainer trainer = new SelfPlayTrainer(new BoardLayout(size, winLength));
+        long start = System.nanoTime();
+        trainer.train(games);
+        System.out.printf("Trained %,d games in %.1f s%n", games, (System.nanoTime() - start) / 1e9);
+
+        int[] results = trainer.evaluateAgainstRandom(5_000);
+        System.out.printf("Against random play: %d wins, %d draws, %d losses%n", results[0], results[1], results[2]);
+        try {
+            trainer.getPlayer(1.0).save(Paths.get(file));
+            System.out.println("Weights saved to " + file);
+        } catch (IOException e) {
+            System.err.println("Could not save weights: " + e.getMessage());
+        }
+    }
+}
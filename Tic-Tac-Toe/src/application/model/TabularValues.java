@@ -0,0 +1,68 @@
+package application.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Value table with one entry per base-3 position code, for boards up to 4x4.
+ * Values are stored as 16-bit fixed point in a plain array, which keeps a 4x4 table at 86 MB
+ * and lets training threads update it without locks.
+ */
+public class TabularValues implements ValueFunction {
+    private static final float SCALE = Short.MAX_VALUE; // Fixed point scale for values between -1 and 1
+
+    private final BoardLayout layout;
+    private final short[] values;
+
+    /**
+     * Creates a table with every position valued as a draw.
+     *
+     * @param layout The board the table is for.
+     */
+    public TabularValues(BoardLayout layout) {
+        if (layout.getCells() > 16) {
+            throw new IllegalArgumentException("Boards above 4x4 are too large for a table");
+        }
+        this.layout = layout;
+        this.values = new short[(int) layout.getPositionCount()];
+    }
+
+    @Override
+    public float value(int[] board) {
+        return values[(int) layout.encode(board)] / SCALE;
+    }
+
+    @Override
+    public void update(int[] board, float target, float learningRate) {
+        int code = (int) layout.encode(board);
+        float current = values[code] / SCALE;
+        float updated = Math.max(-1f, Math.min(1f, current + learningRate * (target - current)));
+        values[code] = (short) Math.round(updated * SCALE);
+    }
+
+    @Override
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * 2);
+        bytes.asShortBuffer().put(values);
+        out.write(bytes.array());
+    }
+
+    /**
+     * Reads a table written by {@link #write(DataOutputStream)}.
+     *
+     * @param layout The board the table is for.
+     * @param in     The buffer positioned at the table.
+     * @return The loaded table.
+     */
+    static TabularValues read(BoardLayout layout, ByteBuffer in) {
+        TabularValues table = new TabularValues(layout);
+        if (in.getInt() != table.values.length) {
+            throw new IllegalArgumentException("Table size does not match the board");
+        }
+        in.asShortBuffer().get(table.values);
+        in.position(in.position() + table.values.length * 2);
+        return table;
+    }
+}
@@ -4,6 +4,8 @@ package application.model;
  * Model class representing the game logic for Tic Tac Toe.
  */
 public class TicTacToeModel {
+    private static final BoardLayout LAYOUT = new BoardLayout(3); // Board geometry for the analysis tools
+
     // Game board represented as a 2D array of strings
     private final String[][] board = new String[3][3];
 
@@ -17,12 +19,17 @@ public class TicTacToeModel {
     private int player1Score; // First player's score
     private int player2Score; // Second player's score
     private boolean isRoundOver; // Flag to indicate if the round has ended
+    private OpeningBook openingBook; // Book of opening moves consulted before any search, may be null
+    private LearnedPlayer learnedPlayer; // Self-play trained player used when there is no win or block, may be null
+    private int searchDepth = Integer.getInteger("tictactoe.searchDepth", 0); // Moves the computer looks ahead, 0 to not search
 
     /**
      * Constructor initializes the game board.
      */
     public TicTacToeModel() {
         clearBoard();
+        openingBook = OpeningBook.loadDefault(3);
+        learnedPlayer = LearnedPlayer.loadDefault(3);
     }
 
     /**
@@ -179,7 +186,22 @@ public class TicTacToeModel {
         int[] blockMove = findWinningMove("X"); // Find a move to block the opponent
         if (blockMove != null) return blockMove; // If found, return the blocking move
 
-        // If neither a winning nor a blocking move, make a random move
+        // If neither a winning nor a blocking move, play from the opening book when it knows the position
+        if (openingBook != null) {
+            int[] bookMove = openingBook.computeMove(board);
+            if (bookMove != null) return bookMove;
+        }
+
+        // Otherwise search ahead when enabled, sharing results with all other games
+        if (searchDepth > 0) {
+            NegamaxSearch search = new NegamaxSearch(LAYOUT, PositionCache.shared(), learnedPlayer != null ? learnedPlayer.getValues() : null);
+            return search.computeMove(board, searchDepth);
+        }
+
+        // Otherwise let the learned player choose when one is available
+        if (learnedPlayer != null) return learnedPlayer.computeMove(board);
+
+        // Otherwise make a random move
         int row, col;
         do {
             row = (int) (Math.random() * 3); // Generate a random row index
@@ -308,6 +330,30 @@ public class TicTacToeModel {
         this.isRoundOver = isRoundOver;
     }
 
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public LearnedPlayer getLearnedPlayer() {
+        return learnedPlayer;
+    }
+
+    public void setLearnedPlayer(LearnedPlayer learnedPlayer) {
+        this.learnedPlayer = learnedPlayer;
+    }
+
+    public int getSearchDepth() {
+        return searchDepth;
+    }
+
+    public void setSearchDepth(int searchDepth) {
+        this.searchDepth = searchDepth;
+    }
+
     public boolean isComputerX() {
         return currentPlayerX.equals(player2Name);
     }
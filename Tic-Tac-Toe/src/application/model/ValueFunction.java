@@ -0,0 +1,37 @@
+package application.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A learned estimate of how good a position is, used by {@link LearnedPlayer} and trained by {@link SelfPlayTrainer}.
+ * Values range from -1 (O wins) to 1 (X wins). Implementations are updated by many training
+ * threads at once without locking, so an occasional lost update is accepted in exchange for speed.
+ */
+public interface ValueFunction {
+
+    /**
+     * Estimates a position.
+     *
+     * @param board The cell values.
+     * @return The expected result from X's point of view, between -1 and 1.
+     */
+    float value(int[] board);
+
+    /**
+     * Moves the estimate of a position towards a target.
+     *
+     * @param board        The cell values.
+     * @param target       The value the position should have had.
+     * @param learningRate The fraction of the error to correct.
+     */
+    void update(int[] board, float target, float learningRate);
+
+    /**
+     * Writes the learned weights, without any header.
+     *
+     * @param out The stream to write to.
+     * @throws IOException if the weights cannot be written.
+     */
+    void write(DataOutputStream out) throws IOException;
+}
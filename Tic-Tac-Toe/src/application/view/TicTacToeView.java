@@ -1,7 +1,9 @@
 package application.view;
 
 import application.controller.PlayerSetupDialogController;
+import application.controller.ReplayController;
 import application.controller.TicTacToeController;
+import application.model.GameArchive;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -10,6 +12,8 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 
 /**
@@ -19,6 +23,7 @@ public class TicTacToeView {
 
     private TicTacToeController mainController;
     private FXMLLoader mainLoader;
+    private Stage primaryStage;
 
 
     /**
@@ -28,6 +33,7 @@ public class TicTacToeView {
      * @throws Exception if there is a problem loading the view.
      */
     public void start(Stage primaryStage) throws Exception {
+        this.primaryStage = primaryStage;
         mainLoader = new FXMLLoader(getClass().getResource("/TicTacToe.fxml"));
         Parent root = mainLoader.load();
         primaryStage.setTitle("Tic Tac Toe");
@@ -81,5 +87,32 @@ public class TicTacToeView {
         }
     }
 
+    /**
+     * Shows the replay window next to the board, opening the default game archive if there is one.
+     */
+    public void showReplayDialog() {
+        try {
+            FXMLLoader replayLoader = new FXMLLoader(getClass().getResource("/Replay.fxml"));
+            Parent replayRoot = replayLoader.load();
+
+            Stage replayStage = new Stage();
+            replayStage.setTitle("Replay Games");
+            replayStage.initOwner(primaryStage);
+            replayStage.setScene(new Scene(replayRoot));
+
+            ReplayController replayController = replayLoader.getController();
+            replayController.setDialogStage(replayStage);
+            replayController.setMainController(mainController);
+            replayStage.setOnHidden(event -> replayController.close());
 
+            Path archive = GameArchive.defaultPath();
+            if (Files.isRegularFile(archive)) {
+                replayController.openArchive(archive);
+            }
+            replayStage.show();
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 }